@@ -0,0 +1,154 @@
+/*
+ * BoundingVolumeHierarchy.java
+ * Date: 10/19/26
+ * Description: A binary tree of boxes around the spheres. Each node's
+ * box holds all the spheres below it, and its children split those
+ * spheres in half along the box's longest side. Unlike the quadtree,
+ * it doesn't depend on where the camera is, so it stays valid when the
+ * camera moves. It is searched with a frustum rather than a single ray,
+ * so one walk finds the spheres a whole block of pixels can see.
+ */
+import java.util.*;
+
+public class BoundingVolumeHierarchy {
+	private static final int LEAF_SIZE = 4;		// most spheres in a leaf
+
+	private float minX, minY, minZ, maxX, maxY, maxZ;
+	private BoundingVolumeHierarchy left, right;	// null for a leaf
+	private SphereList sphereList;
+
+	public SphereList getSphereList() { return this.sphereList; }
+
+	public BoundingVolumeHierarchy(ArrayList<Sphere> spheres) {
+		this(spheres.toArray(new Sphere[spheres.size()]), 0, spheres.size());
+	}
+
+	// Node holding spheres[start] to spheres[end - 1]. Reorders that part
+	// of the array.
+	private BoundingVolumeHierarchy(Sphere[] spheres, int start, int end) {
+		this.minX = this.minY = this.minZ = Float.POSITIVE_INFINITY;
+		this.maxX = this.maxY = this.maxZ = Float.NEGATIVE_INFINITY;
+		for (int i = start; i < end; i++) {
+			nTuple c = spheres[i].getCenter();
+			float r = spheres[i].getRadius();
+			this.minX = Math.min(this.minX, c.getX() - r);
+			this.minY = Math.min(this.minY, c.getY() - r);
+			this.minZ = Math.min(this.minZ, c.getZ() - r);
+			this.maxX = Math.max(this.maxX, c.getX() + r);
+			this.maxY = Math.max(this.maxY, c.getY() + r);
+			this.maxZ = Math.max(this.maxZ, c.getZ() + r);
+		}
+
+		if (end - start <= LEAF_SIZE) {		// Leaf
+			this.sphereList = null;
+			for (int i = start; i < end; i++) {
+				this.sphereList = new SphereList(spheres[i], this.sphereList);
+			}
+		} else {							// interior node
+			float sizeX = this.maxX - this.minX;
+			float sizeY = this.maxY - this.minY;
+			float sizeZ = this.maxZ - this.minZ;
+			int axis;			// 0, 1, 2 for x, y, z: side the children split
+			if (sizeX >= sizeY && sizeX >= sizeZ) {
+				axis = 0;
+			} else if (sizeY >= sizeZ) {
+				axis = 1;
+			} else {
+				axis = 2;
+			}
+
+			final int splitAxis = axis;
+			Arrays.sort(spheres, start, end, new Comparator<Sphere>() {
+				public int compare(Sphere a, Sphere b) {
+					return Float.compare(coord(a.getCenter(), splitAxis), coord(b.getCenter(), splitAxis));
+				}
+			});
+			int mid = (start + end) / 2;
+			this.left = new BoundingVolumeHierarchy(spheres, start, mid);
+			this.right = new BoundingVolumeHierarchy(spheres, mid, end);
+		}
+	}
+
+	// Spheres that a ray from apex might hit while it stays on the inner
+	// side of every plane through apex, each given by its inward unit
+	// normal. Can include spheres no such ray hits, never leaves one out.
+	public SphereList spheresInFrustum(nTuple apex, nTuple[] normals) {
+		Frustum frustum = new Frustum(apex, normals);
+		spheresInFrustum(frustum);
+		return frustum.spheres;
+	}
+
+	// A frustum being walked through the tree, and the spheres found so far
+	private static class Frustum {
+		float px, py, pz;
+		float[] nx, ny, nz;
+		SphereList spheres;
+
+		Frustum(nTuple apex, nTuple[] normals) {
+			this.px = apex.getX();
+			this.py = apex.getY();
+			this.pz = apex.getZ();
+			this.nx = new float[normals.length];
+			this.ny = new float[normals.length];
+			this.nz = new float[normals.length];
+			for (int i = 0; i < normals.length; i++) {
+				this.nx[i] = normals[i].getX();
+				this.ny[i] = normals[i].getY();
+				this.nz[i] = normals[i].getZ();
+			}
+		}
+	}
+
+	private void spheresInFrustum(Frustum f) {
+		if (!overlapsBox(f)) {
+			return;
+		}
+		if (this.left == null) {
+			SphereList list = this.sphereList;
+			while (list != null) {
+				if (overlapsSphere(f, list.getSphere())) {
+					f.spheres = new SphereList(list.getSphere(), f.spheres);
+				}
+				list = list.getNext();
+			}
+		} else {
+			this.left.spheresInFrustum(f);
+			this.right.spheresInFrustum(f);
+		}
+	}
+
+	// False if this box is wholly outside one of the planes. The corner
+	// farthest along a plane's normal is the last to leave it.
+	private boolean overlapsBox(Frustum f) {
+		for (int i = 0; i < f.nx.length; i++) {
+			float x = (f.nx[i] >= 0.0f) ? this.maxX : this.minX;
+			float y = (f.ny[i] >= 0.0f) ? this.maxY : this.minY;
+			float z = (f.nz[i] >= 0.0f) ? this.maxZ : this.minZ;
+			if ((x - f.px) * f.nx[i] + (y - f.py) * f.ny[i] + (z - f.pz) * f.nz[i] < 0.0f) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// False if s is wholly outside one of the planes
+	private static boolean overlapsSphere(Frustum f, Sphere s) {
+		nTuple c = s.getCenter();
+		float r = s.getRadius();
+		for (int i = 0; i < f.nx.length; i++) {
+			if ((c.getX() - f.px) * f.nx[i] + (c.getY() - f.py) * f.ny[i] + (c.getZ() - f.pz) * f.nz[i] < -r) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static float coord(nTuple p, int axis) {
+		if (axis == 0) {
+			return p.getX();
+		} else if (axis == 1) {
+			return p.getY();
+		}
+		return p.getZ();
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Camera.java
+ * Date: 10/19/26
+ * Description: A pinhole camera with a position, a point it looks at,
+ * an up direction and a vertical field of view. Generates the primary
+ * ray through each pixel.
+ */
+public class Camera {
+	private nTuple position;
+	private nTuple lookAt;
+	private nTuple up;
+	private float fov;			// vertical field of view, in degrees
+	private nTuple forward;		// unit vectors of the view basis
+	private nTuple right;
+	private nTuple trueUp;
+	private float halfWidth;	// image plane size at distance 1
+	private float halfHeight;
+
+	public nTuple getPosition() { return this.position; }
+
+	public nTuple getLookAt() { return this.lookAt; }
+
+	public nTuple getUp() { return this.up; }
+
+	public float getFov() { return this.fov; }
+
+	public nTuple getForward() { return this.forward; }
+
+	public nTuple getRight() { return this.right; }
+
+	public nTuple getTrueUp() { return this.trueUp; }
+
+	public float getHalfWidth() { return this.halfWidth; }
+
+	public float getHalfHeight() { return this.halfHeight; }
+
+	// Throws IllegalArgumentException if fov isn't strictly between 0 and
+	// 180 degrees, or if the view has no direction to look in or up is
+	// (nearly) along it, since there'd be no way to tell left from right
+	public Camera(nTuple position, nTuple lookAt, nTuple up, float fov) {
+		if (!(fov > 0.0f && fov < 180.0f)) {
+			throw new IllegalArgumentException("Field of view must be between 0 and 180 degrees, not " + fov);
+		}
+		nTuple view = lookAt.subtract(position);
+		if (!(view.dot(view) > 0.0f)) {
+			throw new IllegalArgumentException("Camera is at the point it looks at: " + position);
+		}
+		nTuple side = view.normalize().cross(up);
+		if (!(side.dot(side) > 1e-6f * up.dot(up))) {
+			throw new IllegalArgumentException("Up direction " + up + " is along the view direction " + view);
+		}
+
+		this.position = new nTuple(position);
+		this.lookAt = new nTuple(lookAt);
+		this.up = new nTuple(up);
+		this.fov = fov;
+
+		this.forward = lookAt.subtract(position).normalize();
+		this.right = this.forward.cross(up).normalize();
+		this.trueUp = this.right.cross(this.forward);
+		this.halfHeight = (float) Math.tan(Math.toRadians(fov) / 2);
+		this.halfWidth = this.halfHeight * RayTraceReflections.WIDTH / (float) RayTraceReflections.HEIGHT;
+	}
+
+	// The fixed camera the quadtree is built for: on the z-axis at CAM_Z,
+	// looking at the origin, seeing the image plane at z = 0
+	public static Camera onAxis() {
+		float fov = (float) Math.toDegrees(2 * Math.atan(RayTraceReflections.IMG_PLANE_SZ
+															/ RayTraceReflections.CAM_Z));
+		return new Camera(new nTuple(0.0f, 0.0f, RayTraceReflections.CAM_Z),
+							new nTuple(),
+							new nTuple(0.0f, 1.0f, 0.0f),
+							fov);
+	}
+
+	// Where the ray through pixel column u or row v crosses the image
+	// plane one unit in front of the camera, along right and trueUp
+	public float screenX(float u) {
+		return this.halfWidth * (2*u/(float)RayTraceReflections.WIDTH - 1);
+	}
+
+	public float screenY(float v) {
+		return -1.0f * this.halfHeight * (2*v/(float)RayTraceReflections.HEIGHT - 1);
+	}
+
+	// Inward unit normals of the four planes through position that bound
+	// the rays through columns u1 to u2 and rows v1 to v2
+	public nTuple[] frustum(float u1, float v1, float u2, float v2) {
+		float left = screenX(u1);
+		float right = screenX(u2);
+		float top = screenY(v1);
+		float bottom = screenY(v2);
+		return new nTuple[] {
+			this.right.subtract(this.forward.scale(left)).normalize(),
+			this.forward.scale(right).subtract(this.right).normalize(),
+			this.forward.scale(top).subtract(this.trueUp).normalize(),
+			this.trueUp.subtract(this.forward.scale(bottom)).normalize()
+		};
+	}
+
+	public ray primaryRay(int u, int v) {
+		float sx = screenX(u);
+		float sy = screenY(v);
+		nTuple dir = this.forward.add(this.right.scale(sx)).add(this.trueUp.scale(sy));
+		return new ray(this.position, dir, 0);
+	}
+}
@@ -0,0 +1,269 @@
+/*
+ * DeadlineRenderer.java
+ * Date: 10/19/26
+ * Description: Renders a frame within a time budget. The frame is
+ * rendered tile by tile, keeping what a sample has cost at each level
+ * over the whole frame so far. A level that hasn't drawn enough tiles to
+ * be measured is guessed from the best measured one, scaled by how the
+ * two usually compare in this kind of scene. Quality only drops
+ * when the rest of the frame at the current level would overrun the
+ * time left, and comes back once a better level fits with some slack.
+ * Nothing is dropped before a tenth of the budget is spent, so one slow
+ * tile at the start can't decide the whole frame, and tiles are visited
+ * in a scattered order so the tiles done so far look like the frame as
+ * a whole rather than just its top rows.
+ *
+ * Usage:
+ *	java DeadlineRenderer <seed> <spheres> <tree depth> <y|n> <budget ms> <image.png>
+ */
+import java.util.*;
+import java.io.*;
+import javax.imageio.*;
+
+public class DeadlineRenderer {
+	// Quality levels, best first. Scenes with reflections never test
+	// shadows, and scenes without them never bounce, so each kind of
+	// scene only uses the levels that change its image, and has its own
+	// guess at what they cost. Coarse samples also fill their block, so
+	// they can cost more than a full quality one.
+	public enum Quality {
+		FULL(RayTraceReflections.MAX_REFLECTION_DEPTH, ray.NO_HIT, 1, 1.0, 1.0),
+		SHALLOW_REFLECTIONS(1, ray.NO_HIT, 1, 1.0, 0.75),
+		NEAR_SHADOWS(1, RayTraceReflections.CAM_Z, 1, 0.9, 0.75),
+		COARSE(1, RayTraceReflections.CAM_Z, 2, 1.4, 0.8),
+		COARSEST(0, 0.0f, 4, 1.9, 0.5);
+
+		private final int maxDepth;			// reflection bounces
+		private final float shadowDistance;	// farthest hit that gets a shadow test
+		private final int step;				// pixels per sample in each direction
+		private final double shadowsCost;		// usual cost of a sample compared to FULL without reflections
+		private final double reflectionsCost;	// and with them
+
+		Quality(int maxDepth, float shadowDistance, int step, double shadowsCost, double reflectionsCost) {
+			this.maxDepth = maxDepth;
+			this.shadowDistance = shadowDistance;
+			this.step = step;
+			this.shadowsCost = shadowsCost;
+			this.reflectionsCost = reflectionsCost;
+		}
+
+		public int getMaxDepth() { return this.maxDepth; }
+
+		public float getShadowDistance() { return this.shadowDistance; }
+
+		public int getStep() { return this.step; }
+
+		public double getRelativeCost(boolean reflect) {
+			return reflect ? this.reflectionsCost : this.shadowsCost;
+		}
+
+		// True if this level draws the same image as other in a scene
+		// that does or doesn't reflect
+		public boolean sameImage(Quality other, boolean reflect) {
+			if (this.step != other.step) {
+				return false;
+			}
+			if (reflect) {
+				return this.maxDepth == other.maxDepth;
+			}
+			return this.shadowDistance == other.shadowDistance;
+		}
+	}
+
+	// What a deadline render actually achieved
+	public static class Report {
+		private Quality[] levels;		// the levels the renderer could use
+		private Quality lowest = Quality.FULL;
+		private int[] tilesAt = new int[Quality.values().length];
+		private long elapsed;
+		private boolean metDeadline;
+
+		public Quality getLowestQuality() { return this.lowest; }
+
+		public int getTilesAt(Quality q) { return this.tilesAt[q.ordinal()]; }
+
+		public long getElapsedNanos() { return this.elapsed; }
+
+		public boolean metDeadline() { return this.metDeadline; }
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(this.metDeadline ? "Met" : "Missed");
+			sb.append(" deadline in ").append(this.elapsed / 1000000).append(" ms, lowest quality ");
+			sb.append(this.lowest);
+			for (Quality q : this.levels) {
+				sb.append("\n\t").append(q).append(": ").append(getTilesAt(q)).append(" tiles");
+			}
+			return sb.toString();
+		}
+	}
+
+	// Fraction of the budget spent before quality may drop
+	public static final double WARMUP = 0.1;
+
+	// Tiles a level must draw before its own cost is trusted
+	public static final int MEASURED_TILES = 2;
+
+	private Quality[] levels;		// levels that change this scene's image, best first
+	private double[] costs;			// usual relative cost of a sample at each level
+	private RayTracer[] tracers;	// one per level
+	private int tileSize;
+
+	public DeadlineRenderer(RayTracer tracer, int tileSize) {
+		boolean reflect = tracer.getReflect();
+		ArrayList<Quality> levels = new ArrayList<Quality>();
+		for (Quality q : Quality.values()) {
+			if (levels.isEmpty() || !q.sameImage(levels.get(levels.size() - 1), reflect)) {
+				levels.add(q);
+			}
+		}
+		this.levels = levels.toArray(new Quality[levels.size()]);
+		this.costs = new double[this.levels.length];
+		this.tracers = new RayTracer[this.levels.length];
+		for (int i = 0; i < this.levels.length; i++) {
+			this.costs[i] = this.levels[i].getRelativeCost(reflect);
+			this.tracers[i] = tracer.withQuality(this.levels[i].getMaxDepth(), this.levels[i].getShadowDistance());
+		}
+		this.tileSize = tileSize;
+	}
+
+	// Render the whole frame into fb, aiming to finish within budgetNanos
+	public Report render(Framebuffer fb, long budgetNanos) {
+		Quality[] levels = this.levels;
+		long[] nanosAt = new long[levels.length];		// time spent at each level
+		long[] samplesAt = new long[levels.length];	// and samples traced there
+		long remainingPixels = (long) fb.getWidth() * fb.getHeight();
+		Report report = new Report();
+		report.levels = levels;
+		long start = System.nanoTime();
+		long deadline = start + budgetNanos;
+		int level = 0;
+		int lowest = 0;
+
+		int tilesX = (fb.getWidth() + this.tileSize - 1) / this.tileSize;
+		int tilesY = (fb.getHeight() + this.tileSize - 1) / this.tileSize;
+		int numTiles = tilesX * tilesY;
+		int stride = scatterStride(numTiles);
+		for (int i = 0; i < numTiles; i++) {
+			int tile = (int) ((long) i * stride % numTiles);
+			int x = (tile % tilesX) * this.tileSize;
+			int y = (tile / tilesX) * this.tileSize;
+			int width = Math.min(this.tileSize, fb.getWidth() - x);
+			int height = Math.min(this.tileSize, fb.getHeight() - y);
+
+			long tileStart = System.nanoTime();
+			int samples = renderTile(fb, this.tracers[level], levels[level].getStep(), x, y, width, height);
+			long now = System.nanoTime();
+			report.tilesAt[levels[level].ordinal()]++;
+			nanosAt[level] += now - tileStart;
+			samplesAt[level] += samples;
+			remainingPixels -= width * height;
+
+			// Levels without enough tiles of their own are guessed from
+			// the level that has traced the most samples
+			int best = 0;
+			for (int l = 1; l < levels.length; l++) {
+				if (samplesAt[l] > samplesAt[best]) {
+					best = l;
+				}
+			}
+			double bestPerSample = (double) nanosAt[best] / samplesAt[best];
+
+			// Pick the best level the rest of the frame fits in. The
+			// current level is kept as long as it fits, and moving up
+			// needs some slack so one cheap tile doesn't cause it.
+			long remainingTime = deadline - now;
+			int next = levels.length - 1;
+			for (int l = 0; l < levels.length - 1; l++) {
+				int step = levels[l].getStep();
+				double perSample = (l == best || report.getTilesAt(levels[l]) >= MEASURED_TILES)
+					? (double) nanosAt[l] / samplesAt[l]
+					: bestPerSample * this.costs[l] / this.costs[best];
+				double projected = perSample * remainingPixels / (step * step);
+				double allowed = (l < level) ? 0.8 * remainingTime : remainingTime;
+				if (projected <= allowed) {
+					next = l;
+					break;
+				}
+			}
+			if (next > level && now - start < WARMUP * budgetNanos) {
+				next = level;
+			}
+			level = next;
+			if (level > lowest) {
+				lowest = level;
+			}
+		}
+
+		report.lowest = levels[lowest];
+		report.elapsed = System.nanoTime() - start;
+		report.metDeadline = (start + report.elapsed <= deadline);
+		return report;
+	}
+
+	// A step through the tiles that visits each of them once and jumps
+	// about 0.618 of the way across the frame each time
+	private static int scatterStride(int numTiles) {
+		int stride = Math.max(1, (int) (numTiles * 0.618));
+		while (gcd(stride, numTiles) != 1) {
+			stride++;
+		}
+		return stride;
+	}
+
+	private static int gcd(int a, int b) {
+		while (b != 0) {
+			int t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	// Trace one pixel per step x step block and fill the block with it.
+	// Returns the number of pixels traced.
+	private int renderTile(Framebuffer fb, RayTracer tracer, int step,
+							int x, int y, int width, int height) {
+		int samples = 0;
+		for (int v = y; v < y + height; v += step) {
+			for (int u = x; u < x + width; u += step) {
+				int color = tracer.getColor(u, v);
+				samples++;
+				int blockW = Math.min(step, x + width - u);
+				int blockH = Math.min(step, y + height - v);
+				for (int bv = v; bv < v + blockH; bv++) {
+					for (int bu = u; bu < u + blockW; bu++) {
+						fb.set(bu, bv, color);
+					}
+				}
+			}
+		}
+		return samples;
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 6) {
+			System.err.println("Usage: java DeadlineRenderer <seed> <spheres> <tree depth> <y|n> <budget ms> <image.png>");
+			System.exit(1);
+		}
+		long seed = Long.parseLong(args[0]);
+		int numSpheres = Integer.parseInt(args[1]);
+		int treeDepth = Integer.parseInt(args[2]);
+		boolean reflect = args[3].equals("y") || args[3].equals("yes");
+		long budget = Long.parseLong(args[4]) * 1000000L;
+
+		ArrayList<Sphere> spheres = RayTraceReflections.randScene(seed, numSpheres, reflect);
+		RayTracer tracer = new RayTracer(spheres, treeDepth, reflect);
+		Framebuffer fb = new Framebuffer(RayTraceReflections.WIDTH, RayTraceReflections.HEIGHT);
+		Report report = new DeadlineRenderer(tracer, 32).render(fb, budget);
+		System.out.println(report);
+
+		try {
+			ImageIO.write(fb.getImage(), "png", new File(args[5]));
+		} catch (IOException e) {
+			System.err.println("Could not write " + args[5] + ": " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * FlyThrough.java
+ * Date: 10/19/26
+ * Description: Renders a sequence of frames with the camera circling
+ * the scene, writing one PNG per frame. All frames share one tracer,
+ * so nothing is rebuilt when the camera moves.
+ *
+ * Usage:
+ *	java FlyThrough <seed> <spheres> <tree depth> <y|n> <frames> <file prefix>
+ */
+import java.util.*;
+import java.io.*;
+import javax.imageio.*;
+
+public class FlyThrough {
+	public static void main(String[] args) {
+		if (args.length != 6) {
+			System.err.println("Usage: java FlyThrough <seed> <spheres> <tree depth> <y|n> <frames> <file prefix>");
+			System.exit(1);
+		}
+		long seed = Long.parseLong(args[0]);
+		int numSpheres = Integer.parseInt(args[1]);
+		int treeDepth = Integer.parseInt(args[2]);
+		boolean reflect = args[3].equals("y") || args[3].equals("yes");
+		int frames = Integer.parseInt(args[4]);
+		String prefix = args[5];
+
+		ArrayList<Sphere> spheres = RayTraceReflections.randScene(seed, numSpheres, reflect);
+		RayTracer tracer = new RayTracer(spheres, treeDepth, reflect);
+		Camera start = Camera.onAxis();
+		Framebuffer fb = new Framebuffer(RayTraceReflections.WIDTH, RayTraceReflections.HEIGHT);
+
+		for (int i = 0; i < frames; i++) {
+			double angle = 2 * Math.PI * i / frames;
+			nTuple position = new nTuple((float) (RayTraceReflections.CAM_Z * Math.sin(angle)),
+											5.0f,
+											(float) (RayTraceReflections.CAM_Z * Math.cos(angle)));
+			Camera camera = new Camera(position, start.getLookAt(), start.getUp(), start.getFov());
+
+			long before = System.nanoTime();
+			tracer.withCamera(camera).render(fb, 0, 0, fb.getWidth(), fb.getHeight());
+			long ms = (System.nanoTime() - before) / 1000000;
+			System.out.println("Frame " + i + ": " + ms + " ms");
+
+			String file = String.format("%s%04d.png", prefix, i);
+			try {
+				ImageIO.write(fb.getImage(), "png", new File(file));
+			} catch (IOException e) {
+				System.err.println("Could not write " + file + ": " + e.getMessage());
+				System.exit(1);
+			}
+		}
+	}
+}
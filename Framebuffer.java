@@ -0,0 +1,50 @@
+/*
+ * Framebuffer.java
+ * Date: 10/19/26
+ * Description: A block of pixels packed as 0xAARRGGBB ints. The pixels
+ * are the backing store of an image, so shading writes straight into
+ * the image without allocating a Color for each pixel.
+ */
+import java.awt.image.*;
+
+public class Framebuffer {
+	private int width, height;
+	private BufferedImage image;
+	private int[] pixels;
+
+	public int getWidth() { return this.width; }
+
+	public int getHeight() { return this.height; }
+
+	public BufferedImage getImage() { return this.image; }
+
+	public int[] getPixels() { return this.pixels; }
+
+	public Framebuffer(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+	}
+
+	public int get(int x, int y) {
+		return this.pixels[y * this.width + x];
+	}
+
+	public void set(int x, int y, int argb) {
+		this.pixels[y * this.width + x] = argb;
+	}
+
+	// Pack a color with components in [0, 1], rounding the same way
+	// java.awt.Color does
+	public static int pack(float r, float g, float b) {
+		return 0xFF000000
+				| ((int) (r * 255 + 0.5f) << 16)
+				| ((int) (g * 255 + 0.5f) << 8)
+				| (int) (b * 255 + 0.5f);
+	}
+
+	public static int pack(nTuple color) {
+		return pack(color.getX(), color.getY(), color.getZ());
+	}
+}
@@ -10,6 +10,7 @@
 import java.util.*;
 
 public class Quadtree {
+	private static final float EXTENT_PAD = 0.001f;	// much less than a pixel
 	private float minX, minY, maxX, maxY;
 	private int level;
 	private Quadtree ll, lr, ul, ur;
@@ -86,6 +87,19 @@ public class Quadtree {
 				y1 = y2;
 				y2 = temp;
 			}
+
+			// Pad the extent so grazing hits on a node boundary aren't
+			// lost to rounding in the trig above
+			x1 -= EXTENT_PAD;
+			x2 += EXTENT_PAD;
+			y1 -= EXTENT_PAD;
+			y2 += EXTENT_PAD;
+
+			// Skip spheres that miss this node, so a tree built over
+			// part of the image plane only holds spheres it can see
+			if (x2 < this.minX || x1 > this.maxX || y2 < this.minY || y1 > this.maxY) {
+				return;
+			}
 	
 			// Send down tree to bottom, adding sphere to each node it's in
 			if (y1 < medY) {		// in bottom half
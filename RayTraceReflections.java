@@ -34,10 +34,13 @@ public class RayTraceReflections extends Frame {
 	public static final float IMG_PLANE_SZ = 10.0f;
 	public static final float CAM_Z = 20.0f;
 	public static final int MAX_REFLECTION_DEPTH = 5;
+	public static final int REFLECTION_CACHE_SIZE = 1 << 16;
+	public static final int REFLECTION_CACHE_RESOLUTION = 16;	// normal grid cells per axis
 	public static ArrayList<Sphere> spheres = new ArrayList<Sphere>();
-	public static Quadtree tree;
-	public static Quadtree shadowTree;
+	public static RayTracer tracer;
+	private Framebuffer framebuffer;
 	public static boolean REFLECT = true;
+	private static final Random RANDOM = new Random();
 
 	/*
 	 * Main entry point
@@ -47,24 +50,13 @@ public class RayTraceReflections extends Frame {
 		int numSpheres = howManySpheres(input);
 		int treeDepth = howDeep(input);
 		REFLECT = wantReflections(input);
-		tree = new Quadtree(-IMG_PLANE_SZ,
-							-IMG_PLANE_SZ,
-							IMG_PLANE_SZ,
-							IMG_PLANE_SZ,
-							treeDepth,
-							CAM_Z);
-		shadowTree = new Quadtree(-IMG_PLANE_SZ * 5, 
-									-IMG_PLANE_SZ * 5,
-									IMG_PLANE_SZ * 5,
-									IMG_PLANE_SZ * 5,
-									treeDepth,
-									CAM_Z);
-
 		for (int i = 0; i < numSpheres; i++) {
-			Sphere s = randSphere(LIGHT, LIGHT_BASIS_2, LIGHT_BASIS_3);
-			tree.addSphere(s);
-			shadowTree.addShadowSphere(s);
-			spheres.add(s);
+			spheres.add(randSphere(LIGHT, LIGHT_BASIS_2, LIGHT_BASIS_3));
+		}
+		tracer = new RayTracer(spheres, treeDepth, REFLECT);
+		if (REFLECT && wantReflectionCache(input)) {
+			tracer = tracer.withReflectionCache(new ReflectionCache(REFLECTION_CACHE_SIZE,
+																	REFLECTION_CACHE_RESOLUTION));
 		}
 
 		Statistics stats = new Statistics(spheres);
@@ -83,7 +75,15 @@ public class RayTraceReflections extends Frame {
 	}
 
 	public static boolean wantReflections(Scanner input) {
-		System.out.print("Do you want reflections drawn (y/n)? ");
+		return askYesNo(input, "Do you want reflections drawn (y/n)? ");
+	}
+
+	public static boolean wantReflectionCache(Scanner input) {
+		return askYesNo(input, "Do you want to reuse nearby reflection rays (faster, approximate) (y/n)? ");
+	}
+
+	public static boolean askYesNo(Scanner input, String question) {
+		System.out.print(question);
 		String response = input.next();
 		boolean answer = false;
 
@@ -100,116 +100,34 @@ public class RayTraceReflections extends Frame {
 	}
 
 	public static Sphere randSphere(nTuple u1, nTuple u2, nTuple u3) {
-		float x = (float) Math.random() * 16.0f - 8.0f;
-		float y = (float) Math.random() * 16.0f - 8.0f;
-		float z = (float) Math.random() * 16.0f - 8.0f;
-		float radius = 0.0f;
-		if (REFLECT) {
-			radius = (float) Math.random() * 0.4f + 0.2f;
-		} else {
-			radius = (float) Math.random() * 0.1f + 0.05f;
-		}
-		float r = (float) Math.random();
-		float g = (float) Math.random();
-		float b = (float) Math.random();
-		return new Sphere(x, y, z, radius, r, g, b, u1, u2, u3);
+		return randSphere(RANDOM, REFLECT, u1, u2, u3);
 	}
 
-	public Color getColor(int x, int y) {
-		nTuple p = new nTuple(0.0f, 0.0f, CAM_Z);	// camera point
-		nTuple q = imagePlaneCoord(x, y);			// point on image plane
-		ray ray = new ray(p, q.subtract(p), 0);
-		double closestHit = Double.POSITIVE_INFINITY;
-		float intersection = 0.0f;	// t-value for ray to intersect sphere
-		Sphere closestSphere = null;
-		SphereList intersectSpheres = tree.getSpheres(q.getX(), q.getY());
-
-		while (intersectSpheres != null) { // Find closest sphere
-			Sphere s = intersectSpheres.getSphere();
-			intersection = ray.intersectSphere(s);
-			if (intersection > 0.01f && intersection < closestHit) {
-				closestHit = intersection;
-				closestSphere = s;
-			}
-			intersectSpheres = intersectSpheres.getNext();
-		}
-
-		if (closestSphere != null) {
-			nTuple IntPt = ray.pointAlongRay((float) closestHit);
-			boolean inShadow = false;
-			if (REFLECT) {
-				return reflect(closestSphere, ray, IntPt);
-			} else {
-				inShadow = inShadow(IntPt);
-				return closestSphere.shadeSphere(IntPt, LIGHT, inShadow);
-			}
+	public static Sphere randSphere(Random rng, boolean reflect, nTuple u1, nTuple u2, nTuple u3) {
+		float x = rng.nextFloat() * 16.0f - 8.0f;
+		float y = rng.nextFloat() * 16.0f - 8.0f;
+		float z = rng.nextFloat() * 16.0f - 8.0f;
+		float radius = 0.0f;
+		if (reflect) {
+			radius = rng.nextFloat() * 0.4f + 0.2f;
 		} else {
-			return new Color(BACKGROUND.getX(), BACKGROUND.getY(), BACKGROUND.getZ());
+			radius = rng.nextFloat() * 0.1f + 0.05f;
 		}
+		float r = rng.nextFloat();
+		float g = rng.nextFloat();
+		float b = rng.nextFloat();
+		return new Sphere(x, y, z, radius, r, g, b, u1, u2, u3);
 	}
 
-	/* Reflect
-	 * Calculate reflections if desired, and then shade the sphere
-	 * accordingly.
-	 */
-	public Color reflect(Sphere current, ray incident, nTuple point) {
-		boolean inShadow = false;
-		if (REFLECT && incident.getDepth() < MAX_REFLECTION_DEPTH) {
-			nTuple n = point.subtract(current.getCenter()).normalize();
-			nTuple incDir = incident.getVector();
-			nTuple reflectDir = new nTuple(incDir.subtract(n.scale(2*(n.dot(incDir)))));
-			ray reflection = new ray(point, reflectDir, incident.getDepth() + 1);
-
-			double closestHit = Double.NEGATIVE_INFINITY;
-			float intersection = 0.0f;
-			Sphere closestSphere = null;
-			for (int i = 0; i < spheres.size(); i++) {
-				Sphere s = new Sphere(spheres.get(i));
-				if (!s.isEqual(current)) {
-					intersection = reflection.reflectIntersect(s);
-					if (intersection < -0.01f && intersection > closestHit) {
-						closestHit = intersection;
-						closestSphere = new Sphere(s);
-					}
-				}
-			}
-			if (closestSphere != null) {
-				nTuple intPt = reflection.pointAlongRay((float) closestHit);
-				return reflect(closestSphere, reflection, intPt);
-			} else {
-				return new Color(BACKGROUND.getX() * 0.8f,
-									BACKGROUND.getY() * 0.8f,
-									BACKGROUND.getZ() * 0.8f);
-			}
-		}
-		return current.shadeSphere(point, LIGHT, inShadow);
-	}
-
-	// Check if a point on a sphere is in shadow
-	public boolean inShadow(nTuple point) {
-		nTuple coords = new nTuple(point.coordChange(LIGHT,
-														LIGHT_BASIS_2,
-														LIGHT_BASIS_3,
-														point));
-		SphereList shadowIsect = shadowTree.getSpheres(coords.getY(), coords.getZ()); 
-		ray shadowRay = new ray(new nTuple(), LIGHT, 0);	// terminal at origin makes math easier
-		boolean inShadow = false;
-		while (!inShadow && (shadowIsect != null)) {
-			Sphere s = new Sphere(shadowIsect.getSphere());
-			s.setCenter(s.getCenter().subtract(point));
-			float intersection = shadowRay.intersectSphere(s);
-			if (intersection > 0.0f) {
-				inShadow = true;
-			}
-			shadowIsect = shadowIsect.getNext();
+	// The same seed always gives the same spheres, so separate processes
+	// can each render part of one scene
+	public static ArrayList<Sphere> randScene(long seed, int numSpheres, boolean reflect) {
+		Random rng = new Random(seed);
+		ArrayList<Sphere> scene = new ArrayList<Sphere>();
+		for (int i = 0; i < numSpheres; i++) {
+			scene.add(randSphere(rng, reflect, LIGHT, LIGHT_BASIS_2, LIGHT_BASIS_3));
 		}
-		return inShadow;
-	}
-
-	public nTuple imagePlaneCoord(float u, float v) {
-		return new nTuple(this.IMG_PLANE_SZ * (2*u/(float)WIDTH - 1),
-							-1.0f * this.IMG_PLANE_SZ * (2*v/(float)HEIGHT - 1),
-							0.0f);
+		return scene;
 	}
 
     /**
@@ -240,11 +158,13 @@ public class RayTraceReflections extends Frame {
      * Graphics2D that we are used to using with Graphics.
      **/
     public void paint(Graphics g) {
-		for (int u = 0; u < WIDTH; u++) {
-			for (int v = 0; v < HEIGHT; v++) {
-        		g.setColor(getColor(u, v));
-        		g.drawLine(u, v, u, v);
+		if (framebuffer == null) {	// only trace once, repaints reuse the image
+			framebuffer = new Framebuffer(WIDTH, HEIGHT);
+			tracer.render(framebuffer, 0, 0, WIDTH, HEIGHT);
+			if (tracer.getReflectionCache() != null) {
+				System.out.println(tracer.getReflectionCache());
 			}
 		}
+		g.drawImage(framebuffer.getImage(), 0, 0, null);
     }
 }
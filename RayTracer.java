@@ -0,0 +1,298 @@
+/*
+ * RayTracer.java
+ * Date: 10/19/26
+ * Description: Traces rays through a scene of spheres. Holds the
+ * spheres and the quadtrees built over them, so it can be used without
+ * opening a window. A tracer can be restricted to a rectangle of
+ * pixels, in which case its quadtree only covers that rectangle.
+ *
+ * The quadtree is only valid for the fixed camera on the z-axis. A
+ * tracer given its own Camera finds primary hits with a bounding
+ * volume hierarchy instead, which is built once and works from any
+ * viewpoint. Each CELL x CELL block of pixels walks it once as a
+ * frustum, and its pixels only test the spheres that walk found.
+ */
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+public class RayTracer {
+	public static final int BACKGROUND_RGB = Framebuffer.pack(RayTraceReflections.BACKGROUND);
+	public static final int REFLECTED_BACKGROUND_RGB = Framebuffer.pack(RayTraceReflections.BACKGROUND.scale(0.8f));
+	public static final int CELL = 16;		// pixels per side of a block sharing one frustum walk
+
+	private static final SphereList EMPTY_CELL = new SphereList(null, null);
+	private static final int CELLS_X = (RayTraceReflections.WIDTH + CELL - 1) / CELL;
+	private static final int CELLS_Y = (RayTraceReflections.HEIGHT + CELL - 1) / CELL;
+
+	private ArrayList<Sphere> spheres;
+	private Quadtree tree;
+	private Quadtree shadowTree;
+	private boolean reflect;
+	private int maxDepth;			// reflection bounces before shading
+	private float shadowDistance;	// hits farther than this skip shadow tests
+	private ReflectionCache cache;	// null if reflection rays aren't cached
+	private Camera camera;			// null for the fixed camera the quadtree is built for
+	private BoundingVolumeHierarchy sceneTree;	// built the first time a camera is set
+	private AtomicReferenceArray<SphereList> cells;	// spheres each block can see, found as needed
+
+	public ArrayList<Sphere> getSpheres() { return this.spheres; }
+
+	public boolean getReflect() { return this.reflect; }
+
+	public int getMaxDepth() { return this.maxDepth; }
+
+	public float getShadowDistance() { return this.shadowDistance; }
+
+	public ReflectionCache getReflectionCache() { return this.cache; }
+
+	public Camera getCamera() { return this.camera; }
+
+	// Tracer for the whole image
+	public RayTracer(ArrayList<Sphere> spheres, int treeDepth, boolean reflect) {
+		this(spheres, treeDepth, reflect, 0, 0, RayTraceReflections.WIDTH, RayTraceReflections.HEIGHT);
+	}
+
+	// Tracer that can only render pixels in the given rectangle
+	public RayTracer(ArrayList<Sphere> spheres, int treeDepth, boolean reflect,
+					int x, int y, int width, int height) {
+		this.spheres = spheres;
+		this.reflect = reflect;
+		this.maxDepth = RayTraceReflections.MAX_REFLECTION_DEPTH;
+		this.shadowDistance = ray.NO_HIT;
+
+		// Image plane is flipped vertically relative to pixel rows
+		nTuple topLeft = imagePlaneCoord(x, y);
+		nTuple bottomRight = imagePlaneCoord(x + width, y + height);
+		this.tree = new Quadtree(topLeft.getX(),
+								bottomRight.getY(),
+								bottomRight.getX(),
+								topLeft.getY(),
+								treeDepth,
+								RayTraceReflections.CAM_Z);
+
+		// Shadow rays can start anywhere, so this tree is never restricted
+		float shadowSz = RayTraceReflections.IMG_PLANE_SZ * 5;
+		this.shadowTree = new Quadtree(-shadowSz,
+										-shadowSz,
+										shadowSz,
+										shadowSz,
+										treeDepth,
+										RayTraceReflections.CAM_Z);
+
+		for (int i = 0; i < spheres.size(); i++) {
+			Sphere s = spheres.get(i);
+			this.tree.addSphere(s);
+			this.shadowTree.addShadowSphere(s);
+		}
+	}
+
+	// Tracer sharing this one's scene and trees, but trading quality
+	// for speed: fewer reflection bounces, and no shadow tests for hits
+	// farther than shadowDistance from the camera
+	public RayTracer withQuality(int maxDepth, float shadowDistance) {
+		RayTracer other = new RayTracer(this);
+		other.maxDepth = maxDepth;
+		other.shadowDistance = shadowDistance;
+		return other;
+	}
+
+	// Tracer sharing this one's scene and trees that caches reflection
+	// rays in cache, or doesn't cache them if cache is null
+	public RayTracer withReflectionCache(ReflectionCache cache) {
+		RayTracer other = new RayTracer(this);
+		other.cache = cache;
+		return other;
+	}
+
+	// Tracer sharing this one's scene and trees that looks through
+	// camera. Moving the camera doesn't rebuild anything: every tracer
+	// made from this one shares the same hierarchy.
+	public RayTracer withCamera(Camera camera) {
+		RayTracer other = new RayTracer(this);
+		other.camera = camera;
+		other.sceneTree = getSceneTree();
+		other.cells = new AtomicReferenceArray<SphereList>(CELLS_X * CELLS_Y);
+		return other;
+	}
+
+	private synchronized BoundingVolumeHierarchy getSceneTree() {
+		if (this.sceneTree == null) {
+			this.sceneTree = new BoundingVolumeHierarchy(this.spheres);
+		}
+		return this.sceneTree;
+	}
+
+	private RayTracer(RayTracer other) {
+		this.spheres = other.spheres;
+		this.tree = other.tree;
+		this.shadowTree = other.shadowTree;
+		this.reflect = other.reflect;
+		this.maxDepth = other.maxDepth;
+		this.shadowDistance = other.shadowDistance;
+		this.cache = other.cache;
+		this.camera = other.camera;
+		this.sceneTree = other.sceneTree;
+		this.cells = other.cells;
+	}
+
+	// Render a rectangle of pixels into the same place in fb
+	public void render(Framebuffer fb, int x, int y, int width, int height) {
+		for (int v = y; v < y + height; v++) {
+			for (int u = x; u < x + width; u++) {
+				fb.set(u, v, getColor(u, v));
+			}
+		}
+	}
+
+	// Render a rectangle of pixels
+	public Tile renderTile(int x, int y, int width, int height) {
+		int[] rgb = new int[width * height];
+		for (int v = 0; v < height; v++) {
+			for (int u = 0; u < width; u++) {
+				rgb[v * width + u] = getColor(x + u, y + v) & 0xFFFFFF;
+			}
+		}
+		return new Tile(x, y, width, height, rgb);
+	}
+
+	// Color of a pixel, packed as 0xAARRGGBB
+	public int getColor(int x, int y) {
+		float closestHit = ray.NO_HIT;
+		Sphere closestSphere = null;
+		ray primary;
+		SphereList intersectSpheres;
+
+		if (this.camera != null) {
+			primary = this.camera.primaryRay(x, y);
+			intersectSpheres = cell(x, y);
+		} else {
+			nTuple p = new nTuple(0.0f, 0.0f, RayTraceReflections.CAM_Z);	// camera point
+			nTuple q = imagePlaneCoord(x, y);			// point on image plane
+			primary = new ray(p, q.subtract(p), 0);
+			intersectSpheres = this.tree.getSpheres(q.getX(), q.getY());
+		}
+
+		while (intersectSpheres != null) { // Find closest sphere
+			Sphere s = intersectSpheres.getSphere();
+			float intersection = primary.closestHit(s, 0.01f, closestHit);
+			if (intersection != ray.NO_HIT) {
+				closestHit = intersection;
+				closestSphere = s;
+			}
+			intersectSpheres = intersectSpheres.getNext();
+		}
+
+		if (closestSphere != null) {
+			nTuple IntPt = primary.pointAlongRay(closestHit);
+			boolean inShadow = false;
+			if (this.reflect) {
+				return reflect(closestSphere, primary, IntPt);
+			} else {
+				inShadow = (closestHit <= this.shadowDistance) && inShadow(IntPt);
+				return closestSphere.shadeSphere(IntPt, RayTraceReflections.LIGHT, inShadow);
+			}
+		} else {
+			return BACKGROUND_RGB;
+		}
+	}
+
+	// Spheres the rays through the block of pixels holding (x, y) might
+	// hit. Threads racing on the same block find the same spheres.
+	private SphereList cell(int x, int y) {
+		int i = (y / CELL) * CELLS_X + x / CELL;
+		SphereList list = this.cells.get(i);
+		if (list == null) {
+			// Half a pixel of slack on each side, so rays through the
+			// edge pixels aren't lost to rounding
+			float u = (x / CELL) * CELL - 0.5f;
+			float v = (y / CELL) * CELL - 0.5f;
+			list = this.sceneTree.spheresInFrustum(this.camera.getPosition(),
+													this.camera.frustum(u, v, u + CELL, v + CELL));
+			if (list == null) {
+				list = EMPTY_CELL;
+			}
+			this.cells.set(i, list);
+		}
+		return (list == EMPTY_CELL) ? null : list;
+	}
+
+	/* Reflect
+	 * Calculate reflections if desired, and then shade the sphere
+	 * accordingly.
+	 */
+	public int reflect(Sphere current, ray incident, nTuple point) {
+		boolean inShadow = false;
+		if (this.reflect && incident.getDepth() < this.maxDepth) {
+			nTuple n = point.subtract(current.getCenter()).normalize();
+			nTuple incDir = incident.getVector();
+			nTuple reflectDir = new nTuple(incDir.subtract(n.scale(2*(n.dot(incDir)))));
+			ray reflection = new ray(point, reflectDir, incident.getDepth() + 1);
+
+			float closestHit = ray.NO_HIT;
+			Sphere closestSphere = null;
+			boolean searched = true;
+			ReflectionCache.Key key = null;
+			if (this.cache != null) {	// try what a nearby ray hit first
+				key = this.cache.key(current, n, incident.getDepth());
+				ReflectionCache.Entry cached = this.cache.lookup(key);
+				if (cached != null) {
+					searched = false;
+					if (cached.getHit() != null) {
+						closestHit = reflection.closestHit(cached.getHit(), 0.01f, ray.NO_HIT);
+						if (closestHit != ray.NO_HIT) {
+							closestSphere = cached.getHit();
+						} else {
+							this.cache.markStale();
+							searched = true;
+						}
+					}
+				}
+			}
+			if (searched) {
+				for (int i = 0; i < this.spheres.size(); i++) {
+					Sphere s = this.spheres.get(i);
+					if (!s.isEqual(current)) {
+						float intersection = reflection.closestHit(s, 0.01f, closestHit);
+						if (intersection != ray.NO_HIT) {
+							closestHit = intersection;
+							closestSphere = s;
+						}
+					}
+				}
+				if (this.cache != null) {
+					this.cache.store(key, closestSphere);
+				}
+			}
+			if (closestSphere != null) {
+				nTuple intPt = reflection.pointAlongRay(closestHit);
+				return reflect(closestSphere, reflection, intPt);
+			} else {
+				return REFLECTED_BACKGROUND_RGB;
+			}
+		}
+		return current.shadeSphere(point, RayTraceReflections.LIGHT, inShadow);
+	}
+
+	// Check if a point on a sphere is in shadow
+	public boolean inShadow(nTuple point) {
+		nTuple coords = new nTuple(point.coordChange(RayTraceReflections.LIGHT,
+														RayTraceReflections.LIGHT_BASIS_2,
+														RayTraceReflections.LIGHT_BASIS_3,
+														point));
+		SphereList shadowIsect = this.shadowTree.getSpheres(coords.getY(), coords.getZ()); 
+		ray shadowRay = new ray(point, RayTraceReflections.LIGHT, 0);
+		boolean inShadow = false;
+		while (!inShadow && (shadowIsect != null)) {	// stop at first occluder
+			inShadow = shadowRay.anyHit(shadowIsect.getSphere(), 0.0f, ray.NO_HIT);
+			shadowIsect = shadowIsect.getNext();
+		}
+		return inShadow;
+	}
+
+	public nTuple imagePlaneCoord(float u, float v) {
+		float sz = RayTraceReflections.IMG_PLANE_SZ;
+		return new nTuple(sz * (2*u/(float)RayTraceReflections.WIDTH - 1),
+							-1.0f * sz * (2*v/(float)RayTraceReflections.HEIGHT - 1),
+							0.0f);
+	}
+}
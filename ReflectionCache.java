@@ -0,0 +1,159 @@
+/*
+ * ReflectionCache.java
+ * Date: 10/19/26
+ * Description: Remembers which sphere a reflection ray hit, keyed by
+ * the sphere it left, the direction of the surface normal rounded to a
+ * grid, and the reflection depth. Neighbouring pixels on a sphere send
+ * out nearly the same reflection rays, so a later ray can test the
+ * remembered sphere instead of every sphere in the scene.
+ *
+ * The cache is approximate: a remembered sphere is used as soon as the
+ * ray hits it, even if a nearer sphere would also have been hit, and a
+ * remembered miss is trusted. A finer normal grid makes this rarer.
+ *
+ * Entries are split over several LRU maps with their own locks, so
+ * tiles can be rendered on several threads at once.
+ */
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+public class ReflectionCache {
+	private static final int STRIPES = 16;		// power of 2
+
+	// What a reflection ray hit, null if it missed everything
+	public static class Entry {
+		private final Sphere hit;
+
+		public Entry(Sphere hit) { this.hit = hit; }
+
+		public Sphere getHit() { return this.hit; }
+	}
+
+	private static final Entry MISS = new Entry(null);
+
+	// Spheres are compared by identity, so a cache belongs to one scene
+	public static class Key {
+		private final Sphere source;
+		private final int bucket;
+		private final int depth;
+
+		private Key(Sphere source, int bucket, int depth) {
+			this.source = source;
+			this.bucket = bucket;
+			this.depth = depth;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return (this.source == other.source) && (this.bucket == other.bucket) && (this.depth == other.depth);
+		}
+
+		@Override
+		public int hashCode() {
+			int h = System.identityHashCode(this.source);
+			h = 31 * h + this.bucket;
+			h = 31 * h + this.depth;
+			return h ^ (h >>> 16);
+		}
+	}
+
+	private int resolution;		// grid cells per axis for normals
+	private LinkedHashMap<Key, Entry>[] stripes;
+	private AtomicLong lookups = new AtomicLong();
+	private AtomicLong hits = new AtomicLong();
+	private AtomicLong stale = new AtomicLong();
+	private AtomicLong evictions = new AtomicLong();
+
+	@SuppressWarnings("unchecked")
+	public ReflectionCache(int capacity, int resolution) {
+		this.resolution = resolution;
+		this.stripes = (LinkedHashMap<Key, Entry>[]) new LinkedHashMap<?, ?>[STRIPES];
+		final int perStripe = Math.max(1, capacity / STRIPES);
+		for (int i = 0; i < STRIPES; i++) {
+			this.stripes[i] = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+					if (size() > perStripe) {
+						evictions.incrementAndGet();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+	}
+
+	// Key for a reflection ray leaving source, where n is the unit
+	// surface normal at the point it leaves from
+	public Key key(Sphere source, nTuple n, int depth) {
+		int ix = quantize(n.getX());
+		int iy = quantize(n.getY());
+		int iz = quantize(n.getZ());
+		return new Key(source, (ix * this.resolution + iy) * this.resolution + iz, depth);
+	}
+
+	// Remembered result for key, or null if there is none
+	public Entry lookup(Key key) {
+		this.lookups.incrementAndGet();
+		LinkedHashMap<Key, Entry> stripe = stripeFor(key);
+		Entry entry;
+		synchronized (stripe) {
+			entry = stripe.get(key);
+		}
+		if (entry != null) {
+			this.hits.incrementAndGet();
+		}
+		return entry;
+	}
+
+	// Remember what a full search found, null for a miss
+	public void store(Key key, Sphere hit) {
+		LinkedHashMap<Key, Entry> stripe = stripeFor(key);
+		synchronized (stripe) {
+			stripe.put(key, (hit == null) ? MISS : new Entry(hit));
+		}
+	}
+
+	// Called when a remembered sphere wasn't hit and a full search was
+	// needed after all
+	public void markStale() {
+		this.hits.decrementAndGet();
+		this.stale.incrementAndGet();
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// METRICS														//
+	//////////////////////////////////////////////////////////////////
+	public long getLookups() { return this.lookups.get(); }
+
+	public long getHits() { return this.hits.get(); }
+
+	public long getStale() { return this.stale.get(); }
+
+	public long getEvictions() { return this.evictions.get(); }
+
+	// Fraction of lookups that avoided a full search
+	public double getHitRate() {
+		long n = this.lookups.get();
+		return (n == 0) ? 0.0 : (double) this.hits.get() / n;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Reflection cache: %d lookups, %.1f%% hits, %d stale, %d evictions",
+								getLookups(), 100.0 * getHitRate(), getStale(), getEvictions());
+	}
+
+	private LinkedHashMap<Key, Entry> stripeFor(Key key) {
+		return this.stripes[key.hashCode() & (STRIPES - 1)];
+	}
+
+	private int quantize(float component) {
+		int i = (int) ((component + 1.0f) * 0.5f * this.resolution);
+		return Math.max(0, Math.min(this.resolution - 1, i));
+	}
+}
@@ -0,0 +1,295 @@
+/*
+ * RenderPipeline.java
+ * Date: 10/19/26
+ * Description: Runs many renders at once, each on its own thread, in
+ * four stages: load the scene, build the quadtrees, trace tiles, and
+ * hand finished tiles to a sink that encodes or writes them.
+ *
+ * The stages aren't run by separate pools. Each render goes through
+ * them in turn, and each step between stages is bounded:
+ *	load to build	at most maxLoading renders are loading or holding a
+ *					loaded scene, so at most maxLoading - maxRenders
+ *					loaded scenes wait for a build
+ *	build to trace	at most maxRenders renders are building or tracing,
+ *					and a render traces with the tracer it just built
+ *	trace to write	each render's traced tiles wait in a queue of
+ *					queueCapacity, so a slow sink holds tracing back
+ *					instead of letting tiles pile up
+ * Renders waiting to start loading are only held by the executor.
+ *
+ * Uses virtual threads when the JVM has them (Java 21 and later), so
+ * renders waiting on scene loading or output don't tie up a platform
+ * thread each. Older JVMs fall back to ordinary threads.
+ *
+ * Usage:
+ *	java RenderPipeline <renders> <spheres> <tree depth> <y|n> <file prefix>
+ */
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.io.*;
+import java.lang.reflect.*;
+
+public class RenderPipeline implements AutoCloseable {
+	// Stage 1: where a render's spheres come from
+	public interface SceneLoader {
+		ArrayList<Sphere> load() throws Exception;
+	}
+
+	// Stage 4: receives each tile as soon as it has been traced. Called
+	// from one thread per render, in the order tiles finish.
+	public interface TileSink {
+		void accept(Tile tile) throws IOException;
+	}
+
+	// How a finished render went
+	public static class Summary {
+		private int tiles;
+		private long loadMs, buildMs, traceMs;
+
+		public int getTiles() { return this.tiles; }
+
+		public long getLoadMs() { return this.loadMs; }
+
+		public long getBuildMs() { return this.buildMs; }
+
+		// From the start of tracing until the sink had every tile
+		public long getTraceMs() { return this.traceMs; }
+
+		@Override
+		public String toString() {
+			return this.tiles + " tiles, load " + this.loadMs + " ms, build " + this.buildMs
+					+ " ms, trace and write " + this.traceMs + " ms";
+		}
+	}
+
+	private static final Tile END = new Tile(0, 0, 0, 0, new int[0]);	// no more tiles
+
+	private ExecutorService executor;
+	private Semaphore loading;		// renders allowed to load or hold a scene at once
+	private Semaphore renders;		// renders allowed past the load stage at once
+	private int tracersPerRender;
+	private int queueCapacity;		// traced tiles waiting for the sink, per render
+
+	public RenderPipeline(int maxLoading, int maxRenders, int tracersPerRender, int queueCapacity) {
+		this.executor = newExecutor();
+		this.loading = new Semaphore(maxLoading);
+		this.renders = new Semaphore(maxRenders);
+		this.tracersPerRender = tracersPerRender;
+		this.queueCapacity = queueCapacity;
+	}
+
+	// Start a render. The future completes once the sink has every tile,
+	// or completes exceptionally if any stage fails.
+	public CompletableFuture<Summary> submit(final SceneLoader loader, final int treeDepth,
+											final boolean reflect, final int tileSize,
+											final TileSink sink) {
+		return CompletableFuture.supplyAsync(new Supplier<Summary>() {
+			public Summary get() {
+				try {
+					return render(loader, treeDepth, reflect, tileSize, sink);
+				} catch (Exception e) {
+					throw new CompletionException(e);
+				}
+			}
+		}, this.executor);
+	}
+
+	private Summary render(SceneLoader loader, int treeDepth, boolean reflect, int tileSize,
+							TileSink sink) throws Exception {
+		Summary summary = new Summary();
+
+		this.loading.acquire();
+		try {
+			long start = System.nanoTime();
+			ArrayList<Sphere> spheres = loader.load();
+			summary.loadMs = (System.nanoTime() - start) / 1000000;
+
+			this.renders.acquire();
+			try {
+				start = System.nanoTime();
+				RayTracer tracer = new RayTracer(spheres, treeDepth, reflect);
+				summary.buildMs = (System.nanoTime() - start) / 1000000;
+
+				start = System.nanoTime();
+				summary.tiles = traceAndWrite(tracer, tileSize, sink);
+				summary.traceMs = (System.nanoTime() - start) / 1000000;
+			} finally {
+				this.renders.release();
+			}
+		} finally {
+			this.loading.release();
+		}
+		return summary;
+	}
+
+	// Stages 3 and 4: tracer threads take tiles in turn and queue them,
+	// while this thread hands them to the sink
+	private int traceAndWrite(final RayTracer tracer, final int tileSize, TileSink sink)
+			throws Exception {
+		final int tilesX = (RayTraceReflections.WIDTH + tileSize - 1) / tileSize;
+		final int tilesY = (RayTraceReflections.HEIGHT + tileSize - 1) / tileSize;
+		final int numTiles = tilesX * tilesY;
+		final BlockingQueue<Tile> queue = new ArrayBlockingQueue<Tile>(this.queueCapacity);
+		final AtomicInteger nextTile = new AtomicInteger();
+		final AtomicInteger running = new AtomicInteger(this.tracersPerRender);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final AtomicBoolean abandoned = new AtomicBoolean();	// nothing is taking from the queue
+
+		for (int t = 0; t < this.tracersPerRender; t++) {
+			this.executor.execute(new Runnable() {
+				public void run() {
+					try {
+						int i = nextTile.getAndIncrement();
+						while (i < numTiles && failure.get() == null) {
+							int x = (i % tilesX) * tileSize;
+							int y = (i / tilesX) * tileSize;
+							int width = Math.min(tileSize, RayTraceReflections.WIDTH - x);
+							int height = Math.min(tileSize, RayTraceReflections.HEIGHT - y);
+							if (!offer(queue, tracer.renderTile(x, y, width, height), abandoned)) {
+								return;
+							}
+							i = nextTile.getAndIncrement();
+						}
+					} catch (Throwable e) {	// an Error too, or its tiles would go missing
+						failure.compareAndSet(null, e);
+					} finally {
+						if (running.decrementAndGet() == 0) {	// last tracer out
+							try {
+								offer(queue, END, abandoned);
+							} catch (InterruptedException e) {
+								failure.compareAndSet(null, e);
+							}
+						}
+					}
+				}
+			});
+		}
+
+		// Keep draining after a failure so tracers blocked on the queue
+		// can finish. If this thread is interrupted instead, the tracers
+		// see the queue is abandoned and stop.
+		int written = 0;
+		try {
+			Tile tile = queue.take();
+			while (tile != END) {
+				if (failure.get() == null) {
+					try {
+						sink.accept(tile);
+						written++;
+					} catch (Exception e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+				tile = queue.take();
+			}
+		} catch (InterruptedException e) {
+			failure.compareAndSet(null, e);
+			throw e;
+		} finally {
+			abandoned.set(true);
+			queue.clear();
+		}
+		Throwable cause = failure.get();
+		if (cause instanceof Exception) {
+			throw (Exception) cause;
+		} else if (cause instanceof Error) {
+			throw (Error) cause;
+		} else if (cause != null) {
+			throw new ExecutionException(cause);
+		}
+		if (written != numTiles) {
+			throw new IllegalStateException("Only " + written + " of " + numTiles + " tiles were written");
+		}
+		return written;
+	}
+
+	// Put tile on the queue, waiting for room unless the queue has been
+	// abandoned. Returns false if it was.
+	private static boolean offer(BlockingQueue<Tile> queue, Tile tile, AtomicBoolean abandoned)
+			throws InterruptedException {
+		while (!queue.offer(tile, 100, TimeUnit.MILLISECONDS)) {
+			if (abandoned.get()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Sink that writes tiles as chunks, which TileMerger can stitch
+	public static TileSink toStream(final DataOutputStream out) {
+		return new TileSink() {
+			public void accept(Tile tile) throws IOException {
+				tile.write(out);
+			}
+		};
+	}
+
+	// Stop taking renders and wait for the ones already submitted
+	public void close() {
+		this.executor.shutdown();
+		try {
+			this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			this.executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Virtual threads on Java 21 and later, ordinary threads before that
+	private static ExecutorService newExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 5) {
+			System.err.println("Usage: java RenderPipeline <renders> <spheres> <tree depth> <y|n> <file prefix>");
+			System.exit(1);
+		}
+		int numRenders = Integer.parseInt(args[0]);
+		final int numSpheres = Integer.parseInt(args[1]);
+		int treeDepth = Integer.parseInt(args[2]);
+		final boolean reflect = args[3].equals("y") || args[3].equals("yes");
+		String prefix = args[4];
+
+		int cores = Runtime.getRuntime().availableProcessors();
+		RenderPipeline pipeline = new RenderPipeline(2 * cores, cores, cores, 16);
+		List<CompletableFuture<Summary>> results = new ArrayList<CompletableFuture<Summary>>();
+		List<DataOutputStream> outputs = new ArrayList<DataOutputStream>();
+
+		// Render i uses seed i, and writes its tiles to <prefix><i>.chunks
+		for (int i = 0; i < numRenders; i++) {
+			final long seed = i;
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+										new FileOutputStream(prefix + i + ".chunks")));
+			outputs.add(out);
+			SceneLoader loader = new SceneLoader() {
+				public ArrayList<Sphere> load() {
+					return RayTraceReflections.randScene(seed, numSpheres, reflect);
+				}
+			};
+			results.add(pipeline.submit(loader, treeDepth, reflect, 32, toStream(out)));
+		}
+
+		boolean failed = false;
+		for (int i = 0; i < numRenders; i++) {
+			try {
+				System.out.println("Render " + i + ": " + results.get(i).get());
+			} catch (ExecutionException e) {
+				System.err.println("Render " + i + " failed: " + e.getCause());
+				failed = true;
+			}
+			outputs.get(i).close();
+		}
+		pipeline.close();
+		if (failed) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,601 @@
+/*
+ * RenderRegression.java
+ * Date: 10/19/26
+ * Description: Renders a fixed set of seeded scenes without a window
+ * and checks them against golden images and timings recorded earlier.
+ * Writes a csv report with the output hash, pixel differences, wall
+ * time, bytes allocated and garbage collection for each scene, and
+ * exits with status 1 if any scene's output drifted or its time
+ * regressed past the threshold. Each scene is also rendered by
+ * DeadlineRenderer with a generous budget, which must keep every tile
+ * at full quality. Some scenes are then rendered other ways: through a
+ * moved camera, split into bands that each have their own tracer, and
+ * with reflections cached. A split scene must match the scene it was
+ * split from, and a cached scene's difference from the uncached one is
+ * reported. Last, the first scene goes through RenderPipeline
+ * with a sink that works, with sinks that throw and with a tracer that
+ * throws, and each render must finish with the right result without
+ * leaving threads behind.
+ *
+ * Usage:
+ *	java RenderRegression [--update | --update-timings] [--golden dir]
+ *						[--report file] [--runs n] [--time-threshold fraction]
+ *
+ * --update records the current images and timings as the new goldens.
+ * The images are kept in the repository, but timings depend on the
+ * machine, so --update-timings records only this machine's timings and
+ * still checks the images.
+ */
+import java.util.*;
+import java.util.concurrent.*;
+import java.io.*;
+import java.lang.management.*;
+import java.security.*;
+import java.awt.image.*;
+import javax.imageio.*;
+
+public class RenderRegression {
+	// A seeded scene and how to render it
+	public static class Scene {
+		private String name;
+		private long seed;
+		private int numSpheres;
+		private int treeDepth;
+		private boolean reflect;
+		private Camera camera;		// null for the fixed camera
+		private int regions = 1;	// bands rendered by tracers of their own
+		private boolean cached;		// reflections go through a ReflectionCache
+		private Scene base;			// scene this one is compared with, if any
+
+		public Scene(String name, long seed, int numSpheres, int treeDepth, boolean reflect) {
+			this.name = name;
+			this.seed = seed;
+			this.numSpheres = numSpheres;
+			this.treeDepth = treeDepth;
+			this.reflect = reflect;
+		}
+
+		private Scene(String name, Scene other) {
+			this(name, other.seed, other.numSpheres, other.treeDepth, other.reflect);
+			this.camera = other.camera;
+			this.regions = other.regions;
+			this.cached = other.cached;
+		}
+
+		public String getName() { return this.name; }
+
+		// This scene seen through camera
+		public Scene withCamera(String name, Camera camera) {
+			Scene other = new Scene(name, this);
+			other.camera = camera;
+			return other;
+		}
+
+		// This scene cut into regions bands of rows, each rendered by a
+		// tracer built only for its band. It must match this scene.
+		public Scene withRegions(String name, int regions) {
+			Scene other = new Scene(name, this);
+			other.regions = regions;
+			other.base = this;
+			return other;
+		}
+
+		// This scene with reflections cached. The cache is approximate,
+		// so how far it is from this scene is only reported.
+		public Scene withReflectionCache(String name) {
+			Scene other = new Scene(name, this);
+			other.cached = true;
+			other.base = this;
+			return other;
+		}
+	}
+
+	public static final Scene[] SCENES = {
+		new Scene("few-shadows", 1, 50, 4, false),
+		new Scene("many-shadows", 2, 2000, 7, false),
+		new Scene("crowded-shadows", 3, 10000, 8, false),
+		new Scene("shallow-tree", 4, 2000, 2, false),
+		new Scene("deep-tree", 5, 2000, 10, false),
+		new Scene("few-reflections", 6, 50, 4, true),
+		new Scene("many-reflections", 7, 300, 6, true),
+	};
+
+	// Scenes from SCENES rendered other ways than the window renders them
+	public static final Scene[] VARIANTS = {
+		SCENES[1].withCamera("orbit-shadows", orbit(1.0)),
+		SCENES[6].withCamera("orbit-reflections", orbit(2.5)),
+		SCENES[1].withRegions("split-shadows", 4),
+		SCENES[6].withRegions("split-reflections", 4),
+		SCENES[6].withReflectionCache("cached-reflections"),
+	};
+
+	// A pixel only counts as changed if some channel moved by more than
+	// CHANNEL_TOLERANCE, and output has drifted once more than
+	// PIXEL_TOLERANCE of the pixels have changed
+	public static final int CHANNEL_TOLERANCE = 2;
+	public static final double PIXEL_TOLERANCE = 0.001;
+
+	// A scene has slowed down once its render time is more than the
+	// threshold fraction above the golden time, plus this many ms so
+	// short scenes don't fail on timer noise
+	public static final double TIME_SLACK_MS = 10.0;
+
+	// The deadline render gets this many times the scene's render time,
+	// plus TIME_SLACK_MS, which is plenty for full quality throughout
+	public static final double GENEROUS_BUDGET = 4.0;
+
+	// Longest a pipeline render or shutdown may take before it counts as
+	// stuck
+	public static final long PIPELINE_TIMEOUT_MS = 30000;
+
+	public static void main(String[] args) {
+		boolean update = false;
+		boolean updateTimings = false;
+		File golden = new File("golden");
+		File reportFile = new File("regression.csv");
+		int runs = 5;
+		double timeThreshold = 0.5;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--update")) {
+				update = true;
+			} else if (args[i].equals("--update-timings")) {
+				updateTimings = true;
+			} else if (args[i].equals("--golden") && i + 1 < args.length) {
+				golden = new File(args[++i]);
+			} else if (args[i].equals("--report") && i + 1 < args.length) {
+				reportFile = new File(args[++i]);
+			} else if (args[i].equals("--runs") && i + 1 < args.length) {
+				runs = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--time-threshold") && i + 1 < args.length) {
+				timeThreshold = Double.parseDouble(args[++i]);
+			} else {
+				System.err.println("Usage: java RenderRegression [--update | --update-timings] [--golden dir]"
+									+ " [--report file] [--runs n] [--time-threshold fraction]");
+				System.exit(1);
+			}
+		}
+
+		boolean passed = true;
+		try {
+			golden.mkdirs();
+			File timingsFile = new File(golden, "timings.csv");
+			Map<String, Double> baseline = (update || updateTimings) ? new HashMap<String, Double>()
+																		: readTimings(timingsFile);
+
+			PrintStream report = new PrintStream(reportFile);
+			report.println("scene,spheres,tree_depth,reflect,build_ms,render_ms,baseline_ms,"
+							+ "alloc_bytes,gc_count,gc_ms,hash,diff_pixels,changed_pixels,max_channel_diff,"
+							+ "base_diff_pixels,base_changed_pixels,deadline_quality,status");
+			Map<String, Double> timings = new LinkedHashMap<String, Double>();
+			Map<Scene, Framebuffer> renders = new HashMap<Scene, Framebuffer>();
+			ArrayList<Scene> scenes = new ArrayList<Scene>(Arrays.asList(SCENES));
+			scenes.addAll(Arrays.asList(VARIANTS));
+
+			// Let the JIT compile the tracing code, through both the plain
+			// and the deadline render, before anything is timed
+			for (int i = 0; i < 5; i++) {
+				run(SCENES[1], 1);
+			}
+
+			String firstHash = null;
+			for (Scene scene : scenes) {
+				Result result = run(scene, runs);
+				if (firstHash == null) {
+					firstHash = result.hash;
+				}
+				renders.put(scene, result.fb);
+				timings.put(scene.name, result.renderMs);
+				File image = new File(golden, scene.name + ".png");
+
+				String status = "ok";
+				int diffPixels = 0;
+				int changedPixels = 0;
+				int maxChannelDiff = 0;
+				int pixels = result.fb.getWidth() * result.fb.getHeight();
+				Double baselineMs = baseline.get(scene.name);
+				if (update) {
+					ImageIO.write(result.fb.getImage(), "png", image);
+					status = "updated";
+				} else if (!image.exists()) {
+					status = "no-golden";
+					passed = false;
+				} else {
+					int[] diff = compare(result.fb, ImageIO.read(image));
+					diffPixels = diff[0];
+					changedPixels = diff[1];
+					maxChannelDiff = diff[2];
+					if (changedPixels > PIXEL_TOLERANCE * pixels) {
+						status = "drift";
+						passed = false;
+					} else if (baselineMs != null && result.renderMs > baselineMs * (1 + timeThreshold) + TIME_SLACK_MS) {
+						status = "slower";
+						passed = false;
+					}
+				}
+				if (status.equals("ok") || status.equals("updated")) {
+					if (result.deadlineQuality != null && (result.deadlineQuality != DeadlineRenderer.Quality.FULL
+															|| !result.deadlineHash.equals(result.hash))) {
+						status = "degraded";
+						passed = false;
+					}
+				}
+
+				// Split scenes must come out the same as their base, while
+				// cached ones are only expected to be close
+				String baseDiff = ",";
+				if (scene.base != null) {
+					int[] diff = compare(result.fb, renders.get(scene.base).getImage());
+					baseDiff = diff[0] + "," + diff[1];
+					if (scene.regions > 1 && diff[1] > PIXEL_TOLERANCE * pixels) {
+						status = "split-drift";
+						passed = false;
+					}
+				}
+
+				String line = String.format(Locale.ROOT, "%s,%d,%d,%b,%.1f,%.1f,%s,%d,%d,%d,%s,%d,%d,%d,%s,%s,%s",
+											scene.name, scene.numSpheres, scene.treeDepth, scene.reflect,
+											result.buildMs, result.renderMs,
+											(baselineMs == null) ? "" : String.format(Locale.ROOT, "%.1f", baselineMs),
+											result.allocBytes, result.gcCount, result.gcMs,
+											result.hash, diffPixels, changedPixels, maxChannelDiff, baseDiff,
+											(result.deadlineQuality == null) ? "" : result.deadlineQuality, status);
+				report.println(line);
+				System.out.println(line);
+			}
+			report.close();
+
+			if (!checkPipeline(SCENES[0], firstHash)) {
+				passed = false;
+			}
+
+			if (update || updateTimings) {
+				writeTimings(timingsFile, timings);
+			}
+		} catch (IOException e) {
+			System.err.println("Regression run failed: " + e.getMessage());
+			System.exit(1);
+		}
+
+		if (!passed) {
+			System.err.println("Regression check failed, see " + reportFile);
+			System.exit(1);
+		}
+	}
+
+	// Measurements from rendering one scene
+	private static class Result {
+		Framebuffer fb;
+		double buildMs;
+		double renderMs;	// fastest of the runs
+		long allocBytes;	// -1 if the JVM can't tell
+		long gcCount;
+		long gcMs;
+		String hash;
+		DeadlineRenderer.Quality deadlineQuality;	// lowest level under a generous budget, null if skipped
+		String deadlineHash;
+	}
+
+	// Build the scene and render it runs times through the same path the
+	// window uses, or the scene's own camera, bands or cache, keeping the
+	// fastest time. Then render it again under a generous deadline, which
+	// should come out the same.
+	public static Result run(Scene scene, int runs) {
+		Result result = new Result();
+		result.fb = new Framebuffer(RayTraceReflections.WIDTH, RayTraceReflections.HEIGHT);
+		long gcCountBefore = gcCount();
+		long gcMsBefore = gcMs();
+		long allocBefore = allocatedBytes();
+
+		// One tracer per band, each built only for the rows it renders
+		int width = result.fb.getWidth();
+		int height = result.fb.getHeight();
+		int[] bandY = new int[scene.regions + 1];
+		for (int i = 0; i <= scene.regions; i++) {
+			bandY[i] = height * i / scene.regions;
+		}
+		long start = System.nanoTime();
+		ArrayList<Sphere> spheres = RayTraceReflections.randScene(scene.seed, scene.numSpheres, scene.reflect);
+		RayTracer[] tracers = new RayTracer[scene.regions];
+		for (int i = 0; i < scene.regions; i++) {
+			tracers[i] = new RayTracer(spheres, scene.treeDepth, scene.reflect,
+										0, bandY[i], width, bandY[i + 1] - bandY[i]);
+			if (scene.camera != null) {
+				tracers[i] = tracers[i].withCamera(scene.camera);
+			}
+		}
+		result.buildMs = (System.nanoTime() - start) / 1e6;
+
+		// Each cached render starts with an empty cache, so what the cache
+		// returns doesn't depend on how many renders came before
+		result.renderMs = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < Math.max(1, runs); i++) {
+			start = System.nanoTime();
+			for (int r = 0; r < scene.regions; r++) {
+				RayTracer tracer = tracers[r];
+				if (scene.cached) {
+					tracer = tracer.withReflectionCache(new ReflectionCache(RayTraceReflections.REFLECTION_CACHE_SIZE,
+														RayTraceReflections.REFLECTION_CACHE_RESOLUTION));
+				}
+				tracer.render(result.fb, 0, bandY[r], width, bandY[r + 1] - bandY[r]);
+			}
+			result.renderMs = Math.min(result.renderMs, (System.nanoTime() - start) / 1e6);
+		}
+
+		long allocAfter = allocatedBytes();
+		result.allocBytes = (allocBefore < 0 || allocAfter < 0) ? -1 : allocAfter - allocBefore;
+		result.gcCount = gcCount() - gcCountBefore;
+		result.gcMs = gcMs() - gcMsBefore;
+		result.hash = hash(result.fb);
+
+		// Like the timing, the deadline render gets runs tries so a stall
+		// on a busy machine isn't taken for the controller's doing. It
+		// renders the whole frame in its own order, so split and cached
+		// scenes skip it.
+		if (scene.regions > 1 || scene.cached) {
+			return result;
+		}
+		Framebuffer deadlineFb = new Framebuffer(result.fb.getWidth(), result.fb.getHeight());
+		DeadlineRenderer deadline = new DeadlineRenderer(tracers[0], 32);
+		long budget = (long) ((GENEROUS_BUDGET * result.renderMs + TIME_SLACK_MS) * 1e6);
+		for (int i = 0; i < Math.max(1, runs); i++) {
+			result.deadlineQuality = deadline.render(deadlineFb, budget).getLowestQuality();
+			if (result.deadlineQuality == DeadlineRenderer.Quality.FULL) {
+				break;
+			}
+		}
+		result.deadlineHash = hash(deadlineFb);
+		return result;
+	}
+
+	// Camera circling the scene like FlyThrough's, angle radians round
+	// from the fixed camera
+	private static Camera orbit(double angle) {
+		Camera start = Camera.onAxis();
+		nTuple position = new nTuple((float) (RayTraceReflections.CAM_Z * Math.sin(angle)),
+										5.0f,
+										(float) (RayTraceReflections.CAM_Z * Math.cos(angle)));
+		return new Camera(position, start.getLookAt(), start.getUp(), start.getFov());
+	}
+
+	// Number of pixels that differ at all, number that differ by more
+	// than CHANNEL_TOLERANCE, and the largest difference in any channel
+	public static int[] compare(Framebuffer fb, BufferedImage golden) {
+		int pixels = fb.getWidth() * fb.getHeight();
+		if (golden.getWidth() != fb.getWidth() || golden.getHeight() != fb.getHeight()) {
+			return new int[] { pixels, pixels, 255 };
+		}
+		int diffPixels = 0;
+		int changedPixels = 0;
+		int maxChannelDiff = 0;
+		for (int y = 0; y < fb.getHeight(); y++) {
+			for (int x = 0; x < fb.getWidth(); x++) {
+				int a = fb.get(x, y);
+				int b = golden.getRGB(x, y);
+				if ((a & 0xFFFFFF) != (b & 0xFFFFFF)) {
+					diffPixels++;
+					int pixelDiff = 0;
+					for (int shift = 0; shift <= 16; shift += 8) {
+						int d = Math.abs(((a >> shift) & 0xFF) - ((b >> shift) & 0xFF));
+						pixelDiff = Math.max(pixelDiff, d);
+					}
+					if (pixelDiff > CHANNEL_TOLERANCE) {
+						changedPixels++;
+					}
+					maxChannelDiff = Math.max(maxChannelDiff, pixelDiff);
+				}
+			}
+		}
+		return new int[] { diffPixels, changedPixels, maxChannelDiff };
+	}
+
+	// SHA-256 of the packed RGB pixels, row by row
+	public static String hash(Framebuffer fb) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			int[] pixels = fb.getPixels();
+			byte[] bytes = new byte[3 * pixels.length];
+			for (int i = 0; i < pixels.length; i++) {
+				bytes[3 * i] = (byte) (pixels[i] >> 16);
+				bytes[3 * i + 1] = (byte) (pixels[i] >> 8);
+				bytes[3 * i + 2] = (byte) pixels[i];
+			}
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest.digest(bytes)) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// PIPELINE FAILURES											//
+	//////////////////////////////////////////////////////////////////
+	// Render scene through RenderPipeline four times: into a framebuffer,
+	// which must match expectedHash, into sinks that throw a checked and
+	// an unchecked exception partway, and with spheres whose shading
+	// throws an Error, each of which must fail the render with what was
+	// thrown. Then the pipeline must close, which it can't while a tracer
+	// is still blocked on a queue nobody reads.
+	public static boolean checkPipeline(Scene scene, String expectedHash) {
+		final ArrayList<Sphere> spheres = RayTraceReflections.randScene(scene.seed, scene.numSpheres, scene.reflect);
+		RenderPipeline.SceneLoader loader = new RenderPipeline.SceneLoader() {
+			public ArrayList<Sphere> load() {
+				return spheres;
+			}
+		};
+		final Framebuffer fb = new Framebuffer(RayTraceReflections.WIDTH, RayTraceReflections.HEIGHT);
+		RenderPipeline.TileSink toFramebuffer = new RenderPipeline.TileSink() {
+			public void accept(Tile tile) {
+				int[] rgb = tile.getRGB();
+				for (int v = 0; v < tile.getHeight(); v++) {
+					for (int u = 0; u < tile.getWidth(); u++) {
+						fb.set(tile.getX() + u, tile.getY() + v, rgb[v * tile.getWidth() + u]);
+					}
+				}
+			}
+		};
+
+		// A small queue and more tracers than it holds, so tracers are
+		// blocked on it when the sink gives up
+		final RenderPipeline pipeline = new RenderPipeline(2, 2, 4, 2);
+		boolean passed = true;
+		try {
+			pipeline.submit(loader, scene.treeDepth, scene.reflect, 32, toFramebuffer)
+					.get(PIPELINE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			passed &= report("pipeline output", hash(fb).equals(expectedHash) ? null : "differs from render");
+			passed &= checkFailure(pipeline, loader, scene, new IOException("sink failed"));
+			passed &= checkFailure(pipeline, loader, scene, new IllegalStateException("sink failed"));
+			passed &= checkTracerError(pipeline, spheres, scene);
+		} catch (Exception e) {
+			passed &= report("pipeline output", e.toString());
+		}
+
+		Thread closer = new Thread(new Runnable() {
+			public void run() {
+				pipeline.close();
+			}
+		});
+		closer.start();
+		try {
+			closer.join(PIPELINE_TIMEOUT_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		passed &= report("pipeline close", closer.isAlive() ? "still running after "
+														+ PIPELINE_TIMEOUT_MS + " ms" : null);
+		return passed;
+	}
+
+	// Render through a sink that throws failure on its third tile
+	private static boolean checkFailure(RenderPipeline pipeline, RenderPipeline.SceneLoader loader,
+										Scene scene, final Exception failure) {
+		String name = "pipeline " + failure.getClass().getSimpleName();
+		RenderPipeline.TileSink sink = new RenderPipeline.TileSink() {
+			private int tiles = 0;
+
+			public void accept(Tile tile) throws IOException {
+				if (++tiles < 3) {
+					return;
+				}
+				if (failure instanceof IOException) {
+					throw (IOException) failure;
+				}
+				throw (RuntimeException) failure;
+			}
+		};
+		try {
+			pipeline.submit(loader, scene.treeDepth, scene.reflect, 32, sink)
+					.get(PIPELINE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			return report(name, "render succeeded");
+		} catch (ExecutionException e) {
+			return report(name, (e.getCause() == failure) ? null : "failed with " + e.getCause());
+		} catch (TimeoutException e) {
+			return report(name, "still running after " + PIPELINE_TIMEOUT_MS + " ms");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return report(name, "interrupted");
+		}
+	}
+
+	// Render spheres that throw an Error when shaded, which should fail
+	// the render rather than leave its tiles out
+	private static boolean checkTracerError(RenderPipeline pipeline, ArrayList<Sphere> spheres,
+											Scene scene) {
+		String name = "pipeline tracer Error";
+		final Error failure = new Error("tracer failed");
+		final ArrayList<Sphere> failing = new ArrayList<Sphere>();
+		for (Sphere s : spheres) {
+			failing.add(new Sphere(s) {
+				@Override
+				public int shadeSphere(nTuple point, nTuple light, boolean inShadow) {
+					throw failure;
+				}
+			});
+		}
+		RenderPipeline.SceneLoader loader = new RenderPipeline.SceneLoader() {
+			public ArrayList<Sphere> load() {
+				return failing;
+			}
+		};
+		RenderPipeline.TileSink sink = new RenderPipeline.TileSink() {
+			public void accept(Tile tile) {
+			}
+		};
+		try {
+			pipeline.submit(loader, scene.treeDepth, scene.reflect, 32, sink)
+					.get(PIPELINE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			return report(name, "render succeeded");
+		} catch (ExecutionException e) {
+			return report(name, (e.getCause() == failure) ? null : "failed with " + e.getCause());
+		} catch (TimeoutException e) {
+			return report(name, "still running after " + PIPELINE_TIMEOUT_MS + " ms");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return report(name, "interrupted");
+		}
+	}
+
+	// Print how a check went, problem being null if it passed
+	private static boolean report(String check, String problem) {
+		System.out.println(check + ": " + ((problem == null) ? "ok" : problem));
+		return problem == null;
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// GOLDEN TIMINGS												//
+	//////////////////////////////////////////////////////////////////
+	private static Map<String, Double> readTimings(File file) throws IOException {
+		Map<String, Double> timings = new HashMap<String, Double>();
+		if (!file.exists()) {
+			return timings;
+		}
+		Scanner input = new Scanner(file);
+		input.nextLine();		// header
+		while (input.hasNextLine()) {
+			String[] parts = input.nextLine().split(",");
+			if (parts.length == 2) {
+				timings.put(parts[0], Double.parseDouble(parts[1]));
+			}
+		}
+		input.close();
+		return timings;
+	}
+
+	private static void writeTimings(File file, Map<String, Double> timings) throws IOException {
+		PrintStream output = new PrintStream(file);
+		output.println("scene,render_ms");
+		for (Map.Entry<String, Double> entry : timings.entrySet()) {
+			output.println(String.format(Locale.ROOT, "%s,%.1f", entry.getKey(), entry.getValue()));
+		}
+		output.close();
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// JVM STATISTICS												//
+	//////////////////////////////////////////////////////////////////
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+		}
+		return -1;
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long gcMs() {
+		long ms = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			ms += Math.max(0, gc.getCollectionTime());
+		}
+		return ms;
+	}
+}
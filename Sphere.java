@@ -5,8 +5,6 @@
  * Description: A sphere object, with methods to modify the sphere's
  * attributes
  */
-import java.awt.*;
-
 public class Sphere {
 	private nTuple center;
 	private nTuple center_shadow;		// coords in shadow coord sys
@@ -68,11 +66,12 @@ public class Sphere {
 		this.color.setNTuple(newColor);
 	}
 
-	public Color shadeSphere(nTuple point, nTuple light, boolean inShadow) {
+	// Shade a point on the sphere, packed as 0xAARRGGBB
+	public int shadeSphere(nTuple point, nTuple light, boolean inShadow) {
 		return lambertian(point, light, inShadow);
 	}
 
-	public Color lambertian(nTuple point, nTuple light, boolean inShadow) {
+	public int lambertian(nTuple point, nTuple light, boolean inShadow) {
 		float cosVectors = ambFactor;
 		if (!inShadow) {
 			nTuple n = point.subtract(this.center).normalize();	// surface normal
@@ -81,6 +80,6 @@ public class Sphere {
 				cosVectors = ambFactor;
 			}
 		}
-		return new Color(cosVectors * this.color.getX(), cosVectors * this.color.getY(), cosVectors * this.color.getZ());
+		return Framebuffer.pack(cosVectors * this.color.getX(), cosVectors * this.color.getY(), cosVectors * this.color.getZ());
 	}
 }
@@ -0,0 +1,92 @@
+/*
+ * Tile.java
+ * Date: 10/19/26
+ * Description: A rendered rectangle of pixels. Tiles can be written to
+ * and read from a stream as self-describing binary chunks, so a frame
+ * can be rendered in pieces by separate processes and stitched back
+ * together with TileMerger.
+ *
+ * Chunk layout (big-endian ints):
+ *	magic, frame width, frame height, x, y, width, height,
+ *	then width * height pixels packed as 0xRRGGBB, row by row
+ */
+import java.io.*;
+
+public class Tile {
+	public static final int MAGIC = 0x5254544C;	// "RTTL"
+
+	private int x, y;
+	private int width, height;
+	private int[] rgb;
+
+	public int getX() { return this.x; }
+
+	public int getY() { return this.y; }
+
+	public int getWidth() { return this.width; }
+
+	public int getHeight() { return this.height; }
+
+	public int[] getRGB() { return this.rgb; }
+
+	public Tile(int x, int y, int width, int height, int[] rgb) {
+		if (rgb.length != width * height) {
+			throw new IllegalArgumentException("Tile is " + width + "x" + height
+												+ " but has " + rgb.length + " pixels");
+		}
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+		this.rgb = rgb;
+	}
+
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(RayTraceReflections.WIDTH);
+		out.writeInt(RayTraceReflections.HEIGHT);
+		out.writeInt(this.x);
+		out.writeInt(this.y);
+		out.writeInt(this.width);
+		out.writeInt(this.height);
+		for (int i = 0; i < this.rgb.length; i++) {
+			out.writeInt(this.rgb[i]);
+		}
+	}
+
+	// Read the next chunk, or return null at the end of the stream
+	public static Tile read(DataInputStream in) throws IOException {
+		int magic;
+		try {
+			magic = in.readInt();
+		} catch (EOFException e) {
+			return null;
+		}
+		if (magic != MAGIC) {
+			throw new IOException("Not a tile chunk");
+		}
+		try {
+			int frameWidth = in.readInt();
+			int frameHeight = in.readInt();
+			if (frameWidth != RayTraceReflections.WIDTH || frameHeight != RayTraceReflections.HEIGHT) {
+				throw new IOException("Tile belongs to a " + frameWidth + "x" + frameHeight + " frame");
+			}
+			int x = in.readInt();
+			int y = in.readInt();
+			int width = in.readInt();
+			int height = in.readInt();
+			if (x < 0 || y < 0 || width <= 0 || height <= 0
+					|| width > frameWidth - x || height > frameHeight - y) {
+				throw new IOException("Tile " + x + "," + y + "," + width + "," + height
+										+ " is outside the frame");
+			}
+			int[] rgb = new int[width * height];
+			for (int i = 0; i < rgb.length; i++) {
+				rgb[i] = in.readInt();
+			}
+			return new Tile(x, y, width, height, rgb);
+		} catch (EOFException e) {
+			throw new IOException("Tile chunk is truncated");
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * TileMerger.java
+ * Date: 10/19/26
+ * Description: Stitches tile chunks written by TileWorker into a
+ * single PNG image.
+ *
+ * Usage:
+ *	java TileMerger <image.png> <chunk file>...
+ */
+import java.io.*;
+import java.awt.image.*;
+import javax.imageio.*;
+
+public class TileMerger {
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: java TileMerger <image.png> <chunk file>...");
+			System.exit(1);
+		}
+		BufferedImage image = new BufferedImage(RayTraceReflections.WIDTH,
+												RayTraceReflections.HEIGHT,
+												BufferedImage.TYPE_INT_RGB);
+		int pixels = 0;
+
+		try {
+			for (int i = 1; i < args.length; i++) {
+				try (DataInputStream in = new DataInputStream(
+											new BufferedInputStream(new FileInputStream(args[i])))) {
+					Tile tile = Tile.read(in);
+					while (tile != null) {
+						image.setRGB(tile.getX(), tile.getY(), tile.getWidth(), tile.getHeight(),
+									tile.getRGB(), 0, tile.getWidth());
+						pixels += tile.getWidth() * tile.getHeight();
+						tile = Tile.read(in);
+					}
+				}
+			}
+			ImageIO.write(image, "png", new File(args[0]));
+		} catch (IOException e) {
+			System.err.println("Could not merge tiles: " + e.getMessage());
+			System.exit(1);
+		}
+
+		if (pixels < RayTraceReflections.WIDTH * RayTraceReflections.HEIGHT) {
+			System.err.println("Warning: tiles only cover " + pixels + " of "
+								+ (RayTraceReflections.WIDTH * RayTraceReflections.HEIGHT) + " pixels");
+		}
+	}
+}
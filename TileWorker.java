@@ -0,0 +1,73 @@
+/*
+ * TileWorker.java
+ * Date: 10/19/26
+ * Description: Renders a list of tiles from a seeded scene and writes
+ * them as tile chunks, so a frame can be split across several
+ * processes or hosts. The quadtree is only built over the rectangle
+ * the tiles cover.
+ *
+ * Usage:
+ *	java TileWorker <seed> <spheres> <tree depth> <y|n> <output> <x,y,w,h>...
+ */
+import java.util.*;
+import java.io.*;
+
+public class TileWorker {
+	public static void main(String[] args) {
+		if (args.length < 6) {
+			System.err.println("Usage: java TileWorker <seed> <spheres> <tree depth> <y|n> <output> <x,y,w,h>...");
+			System.exit(1);
+		}
+		long seed = Long.parseLong(args[0]);
+		int numSpheres = Integer.parseInt(args[1]);
+		int treeDepth = Integer.parseInt(args[2]);
+		boolean reflect = args[3].equals("y") || args[3].equals("yes");
+		String output = args[4];
+
+		// Parse tiles and find the rectangle that holds all of them
+		int[][] tiles = new int[args.length - 5][];
+		int minX = RayTraceReflections.WIDTH;
+		int minY = RayTraceReflections.HEIGHT;
+		int maxX = 0;
+		int maxY = 0;
+		for (int i = 0; i < tiles.length; i++) {
+			tiles[i] = parseTile(args[i + 5]);
+			minX = Math.min(minX, tiles[i][0]);
+			minY = Math.min(minY, tiles[i][1]);
+			maxX = Math.max(maxX, tiles[i][0] + tiles[i][2]);
+			maxY = Math.max(maxY, tiles[i][1] + tiles[i][3]);
+		}
+
+		ArrayList<Sphere> spheres = RayTraceReflections.randScene(seed, numSpheres, reflect);
+		RayTracer tracer = new RayTracer(spheres, treeDepth, reflect,
+										minX, minY, maxX - minX, maxY - minY);
+
+		try (DataOutputStream out = new DataOutputStream(
+									new BufferedOutputStream(new FileOutputStream(output)))) {
+			for (int i = 0; i < tiles.length; i++) {
+				tracer.renderTile(tiles[i][0], tiles[i][1], tiles[i][2], tiles[i][3]).write(out);
+			}
+		} catch (IOException e) {
+			System.err.println("Could not write tiles to " + output + ": " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	// Parse "x,y,w,h" into {x, y, w, h}
+	public static int[] parseTile(String tile) {
+		String[] parts = tile.split(",");
+		if (parts.length != 4) {
+			throw new IllegalArgumentException("Tile must be x,y,w,h: " + tile);
+		}
+		int[] rect = new int[4];
+		for (int i = 0; i < 4; i++) {
+			rect[i] = Integer.parseInt(parts[i].trim());
+		}
+		if (rect[0] < 0 || rect[1] < 0 || rect[2] <= 0 || rect[3] <= 0
+				|| rect[0] + rect[2] > RayTraceReflections.WIDTH
+				|| rect[1] + rect[3] > RayTraceReflections.HEIGHT) {
+			throw new IllegalArgumentException("Tile is outside the image: " + tile);
+		}
+		return rect;
+	}
+}
@@ -57,8 +57,8 @@ public class nTuple {
 
 	//////////////////////////////////////////////////////////////////
 	// BASIC VECTOR OPERATIONS										//
-	// Dot product, scalar multiplication, addition, subtraction,	//
-	// normalize 													//
+	// Dot product, cross product, scalar multiplication, addition,	//
+	// subtraction, normalize										//
 	//////////////////////////////////////////////////////////////////
 	public float dot(nTuple other) {
 		float newX = this.getX() * other.getX();
@@ -67,6 +67,13 @@ public class nTuple {
 		return (newX + newY + newZ);
 	}
 
+	public nTuple cross(nTuple other) {
+		float newX = this.y * other.getZ() - this.z * other.getY();
+		float newY = this.z * other.getX() - this.x * other.getZ();
+		float newZ = this.x * other.getY() - this.y * other.getX();
+		return new nTuple(newX, newY, newZ);
+	}
+
 	public nTuple scale(float factor) {
 		float newX = this.x * factor;
 		float newY = this.y * factor;
@@ -25,60 +25,74 @@ public class ray {
 		this.reflectDepth = newDepth;
 	}
 
-	public float intersectSphere(Sphere s) {
-		// Move sphere and ray by same amount to simplify math
-		nTuple q = this.camera.subtract(s.getCenter());
+	//////////////////////////////////////////////////////////////////
+	// INTERSECTION KERNEL											//
+	// Closest-hit for primary and reflection rays, any-hit for		//
+	// shadow rays. Both only look at the root where the ray enters	//
+	// the sphere, so a ray starting inside or on a sphere never	//
+	// hits it. t-ranges are [tMin, tMax] with tMin >= 0.			//
+	//////////////////////////////////////////////////////////////////
 
-		float a = 1.0f;		// dot product of normalized vector with itself 
-		float b = 2.0f * (q.dot(this.vector));
-		float c = q.dot(q) - (s.getRadius() * s.getRadius());
-		float discriminant = (b*b) - 4*a*c;
+	// Returned by closestHit when the sphere is missed
+	public static final float NO_HIT = Float.POSITIVE_INFINITY;
 
-		if (discriminant < 0.0f) {		// no intersection
-			return -1.0f;
-		} else {			// no need to check both solutions, this is always largest  
-			return (0.5f * (-b - (float) Math.sqrt(discriminant)));
-		}
-	}
-
-	public float intersectShadowSphere(Sphere s) {
-		nTuple q = this.camera.subtract(s.getCenter());
-		
-		float a = 1.0f;
-		float b = 2.0f * (q.dot(this.vector));
-		float c = q.dot(q) - (s.getRadius() * s.getRadius());
-		float discriminant = (b*b) - 4*a*c;
+	// t-value where this ray enters s, or NO_HIT if that lies outside
+	// [tMin, tMax]
+	public float closestHit(Sphere s, float tMin, float tMax) {
+		nTuple center = s.getCenter();
+		float qx = this.camera.getX() - center.getX();
+		float qy = this.camera.getY() - center.getY();
+		float qz = this.camera.getZ() - center.getZ();
+		float r = s.getRadius();
 
+		float b = qx * this.vector.getX() + qy * this.vector.getY() + qz * this.vector.getZ();
+		float c = qx * qx + qy * qy + qz * qz - r * r;
+		if (c <= 0.0f || b >= 0.0f) {		// starts inside, or sphere is behind
+			return NO_HIT;
+		}
+		// Entry point lies in [-b - r, -b]
+		if (-b - r > tMax || -b < tMin) {
+			return NO_HIT;
+		}
+		float discriminant = b * b - c;		// r^2 minus squared miss distance
 		if (discriminant < 0.0f) {
-			return 1.0f;
-		} else {
-			float value1 = 0.5f * (-b - (float) Math.sqrt(discriminant));
-			float value2 = 0.5f * (-b + (float) Math.sqrt(discriminant));
-			if (value2 < value1) {
-				return value2;
-			}
-			return value1;
+			return NO_HIT;
 		}
+
+		float t = -b - (float) Math.sqrt(discriminant);
+		if (t < tMin || t > tMax) {
+			return NO_HIT;
+		}
+		return t;
 	}
 
-	public float reflectIntersect(Sphere s) {
-		nTuple q = this.camera.subtract(s.getCenter());
-		
-		float a = 1.0f;
-		float b = 2.0f * (q.dot(this.vector));
-		float c = q.dot(q) - (s.getRadius() * s.getRadius());
-		float discriminant = (b*b) - 4*a*c;
+	// True if this ray enters s anywhere in [tMin, tMax]. Only takes a
+	// square root when the range cuts through the sphere's extent.
+	public boolean anyHit(Sphere s, float tMin, float tMax) {
+		nTuple center = s.getCenter();
+		float qx = this.camera.getX() - center.getX();
+		float qy = this.camera.getY() - center.getY();
+		float qz = this.camera.getZ() - center.getZ();
+		float r = s.getRadius();
 
+		float b = qx * this.vector.getX() + qy * this.vector.getY() + qz * this.vector.getZ();
+		float c = qx * qx + qy * qy + qz * qz - r * r;
+		if (c <= 0.0f || b >= 0.0f) {
+			return false;
+		}
+		if (-b - r > tMax || -b < tMin) {
+			return false;
+		}
+		float discriminant = b * b - c;
 		if (discriminant < 0.0f) {
-			return 1.0f;
-		} else {
-			float value1 = 0.5f * (-b - (float) Math.sqrt(discriminant));
-			float value2 = 0.5f * (-b + (float) Math.sqrt(discriminant));
-			if (value2 < value1) {
-				return value2;
-			}
-			return value1;
+			return false;
 		}
+		if (-b - r >= tMin && -b <= tMax) {		// whole range of entry points is inside
+			return true;
+		}
+
+		float t = -b - (float) Math.sqrt(discriminant);
+		return (t >= tMin && t <= tMax);
 	}
 
 	public nTuple pointAlongRay(float t) {